@@ -0,0 +1,96 @@
+package com.db.awmd.challenge.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import com.db.awmd.challenge.domain.ReplicationRole;
+
+/**
+ * ReplicationProperties binds the replication.* settings. role decides whether the instance runs on its own, ships its journal
+ * on port as a PRIMARY, or follows the primary at primaryHost:primaryPort as a read-only REPLICA.
+ */
+@Component
+@ConfigurationProperties(prefix = "replication")
+public class ReplicationProperties {
+
+	private ReplicationRole role = ReplicationRole.STANDALONE;
+
+	private int port = 18090;
+
+	private String primaryHost = "127.0.0.1";
+
+	private int primaryPort = 18090;
+
+	private long heartbeatMillis = 1000;
+
+	private int readTimeoutMillis = 5000;
+
+	private long retryMillis = 1000;
+
+	// Entries a primary retains before folding the oldest ones into the snapshot replicas bootstrap from.
+	private int journalCapacity = 100000;
+
+	public ReplicationRole getRole() {
+		return role;
+	}
+
+	public void setRole(ReplicationRole role) {
+		this.role = role;
+	}
+
+	public int getPort() {
+		return port;
+	}
+
+	public void setPort(int port) {
+		this.port = port;
+	}
+
+	public String getPrimaryHost() {
+		return primaryHost;
+	}
+
+	public void setPrimaryHost(String primaryHost) {
+		this.primaryHost = primaryHost;
+	}
+
+	public int getPrimaryPort() {
+		return primaryPort;
+	}
+
+	public void setPrimaryPort(int primaryPort) {
+		this.primaryPort = primaryPort;
+	}
+
+	public long getHeartbeatMillis() {
+		return heartbeatMillis;
+	}
+
+	public void setHeartbeatMillis(long heartbeatMillis) {
+		this.heartbeatMillis = heartbeatMillis;
+	}
+
+	public int getReadTimeoutMillis() {
+		return readTimeoutMillis;
+	}
+
+	public void setReadTimeoutMillis(int readTimeoutMillis) {
+		this.readTimeoutMillis = readTimeoutMillis;
+	}
+
+	public long getRetryMillis() {
+		return retryMillis;
+	}
+
+	public void setRetryMillis(long retryMillis) {
+		this.retryMillis = retryMillis;
+	}
+
+	public int getJournalCapacity() {
+		return journalCapacity;
+	}
+
+	public void setJournalCapacity(int journalCapacity) {
+		this.journalCapacity = journalCapacity;
+	}
+}
@@ -0,0 +1,118 @@
+package com.db.awmd.challenge.domain;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.Data;
+
+/**
+ * JournalEntry is one change shipped from the primary to its replicas, either an account creation or an applied funds transfer.
+ * Transfers carry the resulting balances of both accounts, so replaying an entry never depends on the replica re-running the transfer.
+ * Every entry carries the epoch of the journal it belongs to, a new epoch is generated each time the primary starts.
+ *
+ * HEARTBEAT and SNAPSHOT entries are not stored in the journal. A HEARTBEAT's offset is the primary's current journal head.
+ * A SNAPSHOT tells the replica to replace its accounts with the given ones, which are every account's state just before
+ * the SNAPSHOT's offset.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class JournalEntry {
+
+	public enum Type {
+		ACCOUNT_CREATED, TRANSFER_APPLIED, HEARTBEAT, SNAPSHOT
+	}
+
+	private final String epoch;
+
+	private final long offset;
+
+	private final Type type;
+
+	private final long timestamp;
+
+	private final Account account;
+
+	private final TransferFunds transferFunds;
+
+	private final BigDecimal fromBalance;
+
+	private final BigDecimal toBalance;
+
+	private final List<Account> accounts;
+
+	public String getEpoch() {
+		return epoch;
+	}
+
+	public long getOffset() {
+		return offset;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	public Account getAccount() {
+		return account;
+	}
+
+	public TransferFunds getTransferFunds() {
+		return transferFunds;
+	}
+
+	public BigDecimal getFromBalance() {
+		return fromBalance;
+	}
+
+	public BigDecimal getToBalance() {
+		return toBalance;
+	}
+
+	public List<Account> getAccounts() {
+		return accounts;
+	}
+
+	@JsonCreator
+	public JournalEntry(@JsonProperty("epoch") String epoch, @JsonProperty("offset") long offset, @JsonProperty("type") Type type,
+			@JsonProperty("timestamp") long timestamp, @JsonProperty("account") Account account,
+			@JsonProperty("transferFunds") TransferFunds transferFunds, @JsonProperty("fromBalance") BigDecimal fromBalance,
+			@JsonProperty("toBalance") BigDecimal toBalance, @JsonProperty("accounts") List<Account> accounts) {
+		this.epoch = epoch;
+		this.offset = offset;
+		this.type = type;
+		this.timestamp = timestamp;
+		this.account = account;
+		this.transferFunds = transferFunds;
+		this.fromBalance = fromBalance;
+		this.toBalance = toBalance;
+		this.accounts = accounts;
+	}
+
+	public static JournalEntry accountCreated(String epoch, long offset, Account account) {
+		// Copying the account so later balance changes on the primary don't leak into the journaled creation.
+		return new JournalEntry(epoch, offset, Type.ACCOUNT_CREATED, System.currentTimeMillis(),
+				new Account(account.getAccountId(), account.getBalance()), null, null, null, null);
+	}
+
+	public static JournalEntry transferApplied(String epoch, long offset, TransferFunds transferFunds, BigDecimal fromBalance, BigDecimal toBalance) {
+		return new JournalEntry(epoch, offset, Type.TRANSFER_APPLIED, System.currentTimeMillis(), null,
+				new TransferFunds(transferFunds.getFromAcctId(), transferFunds.getToAcctId(), transferFunds.getTransferAmt()),
+				fromBalance, toBalance, null);
+	}
+
+	public static JournalEntry heartbeat(String epoch, long headOffset) {
+		return new JournalEntry(epoch, headOffset, Type.HEARTBEAT, System.currentTimeMillis(), null, null, null, null, null);
+	}
+
+	public static JournalEntry snapshot(String epoch, long offset, List<Account> accounts) {
+		return new JournalEntry(epoch, offset, Type.SNAPSHOT, System.currentTimeMillis(), null, null, null, null, accounts);
+	}
+}
@@ -0,0 +1,14 @@
+package com.db.awmd.challenge.domain;
+
+/**
+ * ReplicationRole tells an application instance whether it runs on its own, ships its journal as a primary,
+ * or follows a primary as a read-only replica. Configured through the replication.role property.
+ */
+public enum ReplicationRole {
+
+	STANDALONE,
+
+	PRIMARY,
+
+	REPLICA
+}
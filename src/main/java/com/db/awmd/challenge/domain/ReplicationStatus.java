@@ -0,0 +1,81 @@
+package com.db.awmd.challenge.domain;
+
+import lombok.Data;
+
+/**
+ * ReplicationStatus holds the replication metrics exposed by GET /v1/replication.
+ * Offsets are the next journal offset, i.e. the number of journal entries written (primary) or applied (replica).
+ * failedOffset is the offset of the journal entry a replica couldn't apply and stopped following at, null while it is healthy.
+ * resyncCount counts how often a replica dropped its accounts and restarted from a snapshot, e.g. after the primary restarted.
+ */
+@Data
+public class ReplicationStatus {
+
+	private final ReplicationRole role;
+
+	private final boolean connected;
+
+	private final String epoch;
+
+	private final long appliedOffset;
+
+	private final long primaryOffset;
+
+	private final long replicationLagMillis;
+
+	private final long resyncCount;
+
+	private final Long failedOffset;
+
+	public ReplicationRole getRole() {
+		return role;
+	}
+
+	public boolean isConnected() {
+		return connected;
+	}
+
+	public String getEpoch() {
+		return epoch;
+	}
+
+	public long getAppliedOffset() {
+		return appliedOffset;
+	}
+
+	public long getPrimaryOffset() {
+		return primaryOffset;
+	}
+
+	public long getEntriesBehind() {
+		return Math.max(0, primaryOffset - appliedOffset);
+	}
+
+	public long getReplicationLagMillis() {
+		return replicationLagMillis;
+	}
+
+	public long getResyncCount() {
+		return resyncCount;
+	}
+
+	public boolean isFailed() {
+		return failedOffset != null;
+	}
+
+	public Long getFailedOffset() {
+		return failedOffset;
+	}
+
+	public ReplicationStatus(ReplicationRole role, boolean connected, String epoch, long appliedOffset, long primaryOffset,
+			long replicationLagMillis, long resyncCount, Long failedOffset) {
+		this.role = role;
+		this.connected = connected;
+		this.epoch = epoch;
+		this.appliedOffset = appliedOffset;
+		this.primaryOffset = primaryOffset;
+		this.replicationLagMillis = replicationLagMillis;
+		this.resyncCount = resyncCount;
+		this.failedOffset = failedOffset;
+	}
+}
@@ -1,5 +1,7 @@
 package com.db.awmd.challenge.repository;
 
+import java.util.Collection;
+
 import com.db.awmd.challenge.domain.Account;
 import com.db.awmd.challenge.domain.TransferFunds;
 import com.db.awmd.challenge.exception.DuplicateAccountIdException;
@@ -12,6 +14,11 @@ public interface AccountsRepository {
 
   void clearAccounts();
 
+  /**
+   * Replaces all accounts with the given ones in one step, readers see either the old or the new accounts, never a mix.
+   */
+  void replaceAccounts(Collection<Account> accounts);
+
   //void fundsTransferBetweenAccts(TransferFunds transferFunds) throws Exception;
   
 }
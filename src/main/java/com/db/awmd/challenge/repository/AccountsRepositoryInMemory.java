@@ -1,5 +1,6 @@
 package com.db.awmd.challenge.repository;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -14,7 +15,8 @@ public class AccountsRepositoryInMemory implements AccountsRepository {
 	
 	private static org.slf4j.Logger log = LoggerFactory.getLogger(AccountsRepositoryInMemory.class);
 	
-	private final Map<String, Account> accounts = new ConcurrentHashMap<>();
+	// Volatile so replaceAccounts can swap in a fully built map.
+	private volatile Map<String, Account> accounts = new ConcurrentHashMap<>();
 	
 	@Override
 	public void createAccount(Account account) throws DuplicateAccountIdException {
@@ -34,4 +36,13 @@ public class AccountsRepositoryInMemory implements AccountsRepository {
 		accounts.clear();
 	}
 
+	@Override
+	public void replaceAccounts(Collection<Account> replacement) {
+		Map<String, Account> replaced = new ConcurrentHashMap<>();
+		for (Account account : replacement) {
+			replaced.put(account.getAccountId(), account);
+		}
+		accounts = replaced;
+	}
+
 }
@@ -6,11 +6,14 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.db.awmd.challenge.config.ReplicationProperties;
 import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.ReplicationRole;
 import com.db.awmd.challenge.domain.TransferFunds;
 import com.db.awmd.challenge.exception.AccountDoesntExistException;
 import com.db.awmd.challenge.exception.DuplicateAccountIdException;
 import com.db.awmd.challenge.exception.FundsTransferException;
+import com.db.awmd.challenge.exception.ReadOnlyReplicaException;
 import com.db.awmd.challenge.repository.AccountsRepository;
 
 import lombok.Getter;
@@ -34,6 +37,7 @@ public class AccountsService {
 	public static final String TRANSFER_FAILURE_STR = "TRANSFER FAILED!! ";
 	public static final String INITIATING_TRANSFER_STR = "Initiating fund transfer between accounts {} -> {}";
 	public static final String CANT_TRANSFER_WITHIN_SAME_ACCT_STR = "Can't transfer funds within same account ";
+	public static final String READ_ONLY_REPLICA_STR = "This instance is a read-only replica, send writes to the primary.";
 	
 	@Getter
 	private final AccountsRepository accountsRepository;
@@ -41,18 +45,37 @@ public class AccountsService {
 	@Getter
 	private final EmailNotificationService emailNotificationService;
 	
+	private final ReplicationJournal replicationJournal;
+	
+	private final ReplicationRole replicationRole;
+	
 	public AccountsRepository getAccountsRepository() {
 		return accountsRepository;
 	}
 
 	@Autowired
-	public AccountsService(AccountsRepository accountsRepository, EmailNotificationService emailNotificationService) {
+	public AccountsService(AccountsRepository accountsRepository, EmailNotificationService emailNotificationService,
+			ReplicationJournal replicationJournal, ReplicationProperties replicationProperties) {
 		this.accountsRepository = accountsRepository;
 		this.emailNotificationService = emailNotificationService;
+		this.replicationJournal = replicationJournal;
+		this.replicationRole = replicationProperties.getRole();
 	}
 	
 	public void createAccount(Account account) {
-		this.accountsRepository.createAccount(account);
+		checkWritable();
+		
+		// Nothing to order against transfers when the journal isn't recording, so don't serialize creations behind them.
+		if (!this.replicationJournal.isRecording()) {
+			this.accountsRepository.createAccount(account);
+			return;
+		}
+		
+		// Journaling under the same lock as transfers, so a replica never receives a transfer before the creation of its accounts.
+		synchronized(this) {
+			this.accountsRepository.createAccount(account);
+			this.replicationJournal.recordAccountCreated(account);
+		}
 	}
 
 	public Account getAccount(String accountId) {
@@ -68,6 +91,8 @@ public class AccountsService {
 	 */
 	public void fundsTransferBetweenAccts(TransferFunds transferFunds) throws Exception {
 		
+		checkWritable();
+		
 		// Validating if the From Acct and To Acct exists. If both, or any of the accounts doesn't exist, Funds Transfer can't be done, hence throw AccountDoesntExistException
 		// Validating and throwing DuplicateAccountIdException if From Acct and To Acct both are same. Can.'t transfer funds within same account.
 		if (this.accountsRepository.getAccount(transferFunds.getFromAcctId()) == null & this.accountsRepository.getAccount(transferFunds.getToAcctId()) == null) {
@@ -92,8 +117,14 @@ public class AccountsService {
 			synchronized(this) {
 				// Check if From Acct has sufficient balance to do funds transfer.
 				if (fromAcct.getBalance().compareTo(transferAmt) == 1) {
-					fromAcct.setBalance(fromAcct.getBalance().subtract(transferAmt));
-					toAcct.setBalance(toAcct.getBalance().add(transferAmt));
+					BigDecimal fromBalance = fromAcct.getBalance().subtract(transferAmt);
+					BigDecimal toBalance = toAcct.getBalance().add(transferAmt);
+					
+					// Journaling before changing the balances, so a transfer that fails to be journaled is never applied.
+					this.replicationJournal.recordTransferApplied(transferFunds, fromBalance, toBalance);
+					
+					fromAcct.setBalance(fromBalance);
+					toAcct.setBalance(toBalance);
 				}
 				// Throw FundsTransferException From Acct does NOT have sufficient balance to do funds transfer.
 				else {
@@ -110,6 +141,15 @@ public class AccountsService {
 		}
 	}
 	
+	/**
+	 * Replicas only apply changes shipped from the primary, so writes through the service are rejected there.
+	 */
+	private void checkWritable() {
+		if (replicationRole == ReplicationRole.REPLICA) {
+			throw new ReadOnlyReplicaException(READ_ONLY_REPLICA_STR);
+		}
+	}
+	
 	/**
 	 * This method contains logic of Notifying both accounts with funds transfer status.
 	 * 
@@ -0,0 +1,170 @@
+package com.db.awmd.challenge.service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.db.awmd.challenge.config.ReplicationProperties;
+import com.db.awmd.challenge.domain.JournalEntry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * JournalShippingServer streams the ReplicationJournal to replicas over a loopback socket. Only started on a PRIMARY instance.
+ *
+ * Protocol: the replica sends the journal epoch and the offset it wants to resume from as one line, "<epoch> <offset>",
+ * then the server writes journal entries as one JSON document per line, starting at that offset, and keeps tailing the journal.
+ * When the epoch isn't the journal's own, e.g. the replica was fed by a previous primary run or never synced, the server
+ * starts with a SNAPSHOT instead so the replica resyncs from scratch. Each batch of entries is preceded by a HEARTBEAT carrying
+ * the journal head, and while idle a HEARTBEAT is written every heartbeatMillis, which lets the replica measure how far behind
+ * it is even while catching up, and detect a dead primary.
+ */
+@Component
+@ConditionalOnProperty(name = "replication.role", havingValue = "PRIMARY")
+public class JournalShippingServer {
+
+	private static org.slf4j.Logger log = LoggerFactory.getLogger(JournalShippingServer.class);
+
+	private final ReplicationJournal replicationJournal;
+
+	private final ObjectMapper objectMapper;
+
+	private final int port;
+
+	private final long heartbeatMillis;
+
+	private final Set<Socket> replicaSockets = ConcurrentHashMap.newKeySet();
+
+	private volatile ServerSocket serverSocket;
+
+	@Autowired
+	public JournalShippingServer(ReplicationJournal replicationJournal, ObjectMapper objectMapper, ReplicationProperties replicationProperties) {
+		this.replicationJournal = replicationJournal;
+		this.objectMapper = objectMapper;
+		this.port = replicationProperties.getPort();
+		this.heartbeatMillis = replicationProperties.getHeartbeatMillis();
+	}
+
+	@PostConstruct
+	public void start() throws IOException {
+		serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+		log.info("Shipping replication journal on {}", serverSocket.getLocalSocketAddress());
+
+		Thread acceptor = new Thread(this::acceptReplicas, "journal-shipping-acceptor");
+		acceptor.setDaemon(true);
+		acceptor.start();
+	}
+
+	@PreDestroy
+	public void stop() {
+		if (serverSocket == null) {
+			return;
+		}
+		closeQuietly(serverSocket);
+		for (Socket socket : replicaSockets) {
+			closeQuietly(socket);
+		}
+	}
+
+	public int getLocalPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * Returns the number of replicas currently attached, a replica is dropped as soon as shipping to it fails.
+	 *
+	 * @return int
+	 */
+	public int getReplicaCount() {
+		return replicaSockets.size();
+	}
+
+	private void acceptReplicas() {
+		while (!serverSocket.isClosed()) {
+			try {
+				Socket socket = serverSocket.accept();
+				replicaSockets.add(socket);
+				Thread shipper = new Thread(() -> shipJournal(socket), "journal-shipping-" + socket.getPort());
+				shipper.setDaemon(true);
+				shipper.start();
+			} catch (IOException ioex) {
+				if (!serverSocket.isClosed()) {
+					log.warn("Failed to accept replica connection: {}", ioex.getMessage());
+				}
+			}
+		}
+	}
+
+	private void shipJournal(Socket socket) {
+		try (Socket replica = socket;
+				BufferedReader in = new BufferedReader(new InputStreamReader(replica.getInputStream(), StandardCharsets.UTF_8));
+				Writer out = new BufferedWriter(new OutputStreamWriter(replica.getOutputStream(), StandardCharsets.UTF_8))) {
+
+			String request = in.readLine();
+			if (request == null) {
+				return;
+			}
+			String[] handshake = request.trim().split(" ");
+			String replicaEpoch = handshake[0];
+			long nextOffset = Long.parseLong(handshake[1]);
+
+			if (!replicationJournal.getEpoch().equals(replicaEpoch) || nextOffset < 0 || nextOffset > replicationJournal.getHeadOffset()) {
+				JournalEntry snapshot = replicationJournal.snapshot();
+				log.info("Replica {} asked for offset {} of epoch {}, resyncing it from a snapshot at offset {} of epoch {}",
+						replica.getRemoteSocketAddress(), nextOffset, replicaEpoch, snapshot.getOffset(), snapshot.getEpoch());
+				writeEntry(out, snapshot);
+				nextOffset = snapshot.getOffset();
+			} else {
+				log.info("Replica {} connected, shipping journal from offset {}", replica.getRemoteSocketAddress(), nextOffset);
+			}
+
+			while (!replica.isClosed()) {
+				List<JournalEntry> batch = replicationJournal.awaitEntriesFrom(nextOffset, heartbeatMillis);
+				writeEntry(out, JournalEntry.heartbeat(replicationJournal.getEpoch(), replicationJournal.getHeadOffset()));
+				for (JournalEntry entry : batch) {
+					writeEntry(out, entry);
+					// A replica that fell out of the retained window gets a snapshot, which is followed by the entry at its offset.
+					nextOffset = entry.getType() == JournalEntry.Type.SNAPSHOT ? entry.getOffset() : entry.getOffset() + 1;
+				}
+				out.flush();
+			}
+		} catch (IOException | RuntimeException ex) {
+			log.info("Replica {} disconnected: {}", socket.getRemoteSocketAddress(), ex.getMessage());
+		} catch (InterruptedException iex) {
+			Thread.currentThread().interrupt();
+		} finally {
+			replicaSockets.remove(socket);
+		}
+	}
+
+	private void writeEntry(Writer out, JournalEntry entry) throws IOException {
+		out.write(objectMapper.writeValueAsString(entry));
+		out.write('\n');
+	}
+
+	private static void closeQuietly(Closeable closeable) {
+		try {
+			closeable.close();
+		} catch (IOException ioex) {
+			log.debug("Ignoring failure on close: {}", ioex.getMessage());
+		}
+	}
+}
@@ -0,0 +1,277 @@
+package com.db.awmd.challenge.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import com.db.awmd.challenge.config.ReplicationProperties;
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.JournalEntry;
+import com.db.awmd.challenge.domain.ReplicationRole;
+import com.db.awmd.challenge.domain.ReplicationStatus;
+import com.db.awmd.challenge.exception.DuplicateAccountIdException;
+import com.db.awmd.challenge.repository.AccountsRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * ReplicaFollowerService tails the primary's JournalShippingServer and applies the shipped entries to the local AccountsRepository.
+ * Only started on a REPLICA instance. After a disconnect it reconnects and resumes from the next offset it hasn't applied yet.
+ * Offsets are only meaningful within the journal epoch they came from. When the primary answers with a SNAPSHOT, e.g. because
+ * it restarted with a new journal, the replica replaces all its accounts with the snapshot's.
+ * An entry the replica can't read or apply stops it for good, since the primary would ship the same entry again, and the
+ * status reports the offset it stopped at.
+ */
+@Service
+@ConditionalOnProperty(name = "replication.role", havingValue = "REPLICA")
+public class ReplicaFollowerService {
+
+	private static org.slf4j.Logger log = LoggerFactory.getLogger(ReplicaFollowerService.class);
+
+	private final AccountsRepository accountsRepository;
+
+	private final ObjectMapper objectMapper;
+
+	private final String primaryHost;
+
+	private final int primaryPort;
+
+	private final int readTimeoutMillis;
+
+	private final long retryMillis;
+
+	// Journal epoch the applied entries belong to, null until the first snapshot arrives.
+	private volatile String epoch;
+
+	// Next journal offset to request from the primary, i.e. the number of entries applied so far.
+	private volatile long nextOffset;
+
+	private volatile long primaryOffset;
+
+	private volatile long lagMillis;
+
+	private volatile long lastContactMillis;
+
+	private volatile long startedMillis;
+
+	// Last time the replica had applied everything the primary reported, lag can't be smaller than the time since then.
+	private volatile long lastCaughtUpMillis;
+
+	private volatile long resyncCount;
+
+	// Offset of the entry the replica couldn't apply, null while healthy. Once set the follower has stopped.
+	private volatile Long failedOffset;
+
+	private volatile boolean connected;
+
+	private volatile boolean running;
+
+	private volatile Socket socket;
+
+	private Thread follower;
+
+	@Autowired
+	public ReplicaFollowerService(AccountsRepository accountsRepository, ObjectMapper objectMapper, ReplicationProperties replicationProperties) {
+		this.accountsRepository = accountsRepository;
+		this.objectMapper = objectMapper;
+		this.primaryHost = replicationProperties.getPrimaryHost();
+		this.primaryPort = replicationProperties.getPrimaryPort();
+		this.readTimeoutMillis = replicationProperties.getReadTimeoutMillis();
+		this.retryMillis = replicationProperties.getRetryMillis();
+	}
+
+	@PostConstruct
+	public void start() {
+		startedMillis = System.currentTimeMillis();
+		lastCaughtUpMillis = startedMillis;
+		running = true;
+		follower = new Thread(this::follow, "replica-follower");
+		follower.setDaemon(true);
+		follower.start();
+	}
+
+	@PreDestroy
+	public void stop() {
+		running = false;
+		if (socket != null) {
+			try {
+				socket.close();
+			} catch (IOException ioex) {
+				log.debug("Ignoring failure on close: {}", ioex.getMessage());
+			}
+		}
+		if (follower != null) {
+			follower.interrupt();
+		}
+	}
+
+	/**
+	 * While behind the primary the lag keeps growing from the last time the replica was caught up, and while disconnected
+	 * it can't know whether it is still caught up, so the lag keeps growing from the last contact.
+	 * A replica that never synced is behind by at least as long as it has been running.
+	 *
+	 * @return ReplicationStatus
+	 */
+	public ReplicationStatus getStatus() {
+		long now = System.currentTimeMillis();
+		long lag = lagMillis;
+		if (epoch == null) {
+			lag = now - startedMillis;
+		} else {
+			if (nextOffset < primaryOffset) {
+				lag = Math.max(lag, now - lastCaughtUpMillis);
+			}
+			if (!connected) {
+				lag = Math.max(lag, now - lastContactMillis);
+			}
+		}
+		return new ReplicationStatus(ReplicationRole.REPLICA, connected, epoch, nextOffset, primaryOffset, lag, resyncCount, failedOffset);
+	}
+
+	private void follow() {
+		while (running) {
+			try (Socket primary = new Socket()) {
+				socket = primary;
+				primary.connect(new InetSocketAddress(primaryHost, primaryPort), readTimeoutMillis);
+				// Primary heartbeats well within the read timeout, so a timeout here means the primary is gone.
+				primary.setSoTimeout(readTimeoutMillis);
+
+				BufferedReader in = new BufferedReader(new InputStreamReader(primary.getInputStream(), StandardCharsets.UTF_8));
+				Writer out = new OutputStreamWriter(primary.getOutputStream(), StandardCharsets.UTF_8);
+				// A replica that never synced has no epoch yet, "-" never matches the primary's so it gets a snapshot.
+				out.write((epoch == null ? "-" : epoch) + " " + nextOffset + "\n");
+				out.flush();
+
+				connected = true;
+				log.info("Connected to primary {}:{}, resuming from offset {}", primaryHost, primaryPort, nextOffset);
+
+				String line;
+				while (running && (line = in.readLine()) != null) {
+					apply(objectMapper.readValue(line, JournalEntry.class));
+				}
+			} catch (EpochMismatchException emex) {
+				// Reconnecting sends our epoch, which the primary doesn't recognise, so it answers with a snapshot.
+				log.warn("{}, reconnecting to primary {}:{} in {} ms to resync", emex.getMessage(), primaryHost, primaryPort, retryMillis);
+			} catch (JsonProcessingException | RuntimeException ex) {
+				// The primary would ship the very same entry again after a reconnect, so stop following and report it in the status.
+				failedOffset = nextOffset;
+				running = false;
+				log.error("Failed to apply journal entry at offset {} from primary {}:{}, stopped following", nextOffset, primaryHost, primaryPort, ex);
+			} catch (IOException ioex) {
+				if (running) {
+					log.warn("Lost connection to primary {}:{} ({}), retrying in {} ms", primaryHost, primaryPort, ioex.getMessage(), retryMillis);
+				}
+			} finally {
+				connected = false;
+			}
+
+			if (!running) {
+				return;
+			}
+
+			try {
+				Thread.sleep(retryMillis);
+			} catch (InterruptedException iex) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	private void apply(JournalEntry entry) {
+		lastContactMillis = System.currentTimeMillis();
+
+		if (entry.getType() == JournalEntry.Type.SNAPSHOT) {
+			applySnapshot(entry);
+			return;
+		}
+		// Entries of another epoch would be applied at offsets that mean something else.
+		if (!entry.getEpoch().equals(epoch)) {
+			throw new EpochMismatchException("Journal entry " + entry.getOffset() + " is from epoch " + entry.getEpoch() + " but replica is at epoch " + epoch);
+		}
+
+		switch (entry.getType()) {
+		case HEARTBEAT:
+			primaryOffset = entry.getOffset();
+			if (nextOffset >= primaryOffset) {
+				lagMillis = 0;
+				lastCaughtUpMillis = lastContactMillis;
+			}
+			return;
+		case ACCOUNT_CREATED:
+			applyAccountCreated(entry);
+			break;
+		case TRANSFER_APPLIED:
+			applyTransfer(entry);
+			break;
+		default:
+			break;
+		}
+
+		nextOffset = entry.getOffset() + 1;
+		primaryOffset = Math.max(primaryOffset, nextOffset);
+		lagMillis = Math.max(0, lastContactMillis - entry.getTimestamp());
+	}
+
+	private void applySnapshot(JournalEntry entry) {
+		boolean sameEpoch = entry.getEpoch().equals(epoch);
+		if (epoch != null) {
+			resyncCount++;
+			log.warn("Resyncing from snapshot at offset {} of epoch {}, dropping state of epoch {} at offset {}",
+					entry.getOffset(), entry.getEpoch(), epoch, nextOffset);
+		}
+		// Swapping the accounts in one step, so reads during a resync never find an account missing.
+		List<Account> accounts = new ArrayList<>(entry.getAccounts().size());
+		for (Account account : entry.getAccounts()) {
+			accounts.add(new Account(account.getAccountId(), account.getBalance()));
+		}
+		accountsRepository.replaceAccounts(accounts);
+		epoch = entry.getEpoch();
+		nextOffset = entry.getOffset();
+		// A head learned from another epoch means nothing for the new one.
+		primaryOffset = sameEpoch ? Math.max(primaryOffset, nextOffset) : nextOffset;
+	}
+
+	private void applyAccountCreated(JournalEntry entry) {
+		Account account = entry.getAccount();
+		try {
+			accountsRepository.createAccount(new Account(account.getAccountId(), account.getBalance()));
+		} catch (DuplicateAccountIdException daie) {
+			log.warn("Skipping journal entry {}: {}", entry.getOffset(), daie.getMessage());
+		}
+	}
+
+	private void applyTransfer(JournalEntry entry) {
+		Account fromAcct = accountsRepository.getAccount(entry.getTransferFunds().getFromAcctId());
+		Account toAcct = accountsRepository.getAccount(entry.getTransferFunds().getToAcctId());
+		if (fromAcct == null || toAcct == null) {
+			log.warn("Skipping journal entry {}: transfer between unknown accounts {} -> {}", entry.getOffset(),
+					entry.getTransferFunds().getFromAcctId(), entry.getTransferFunds().getToAcctId());
+			return;
+		}
+		fromAcct.setBalance(entry.getFromBalance());
+		toAcct.setBalance(entry.getToBalance());
+	}
+
+	private static class EpochMismatchException extends RuntimeException {
+
+		EpochMismatchException(String message) {
+			super(message);
+		}
+	}
+}
@@ -0,0 +1,165 @@
+package com.db.awmd.challenge.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.db.awmd.challenge.config.ReplicationProperties;
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.JournalEntry;
+import com.db.awmd.challenge.domain.ReplicationRole;
+import com.db.awmd.challenge.domain.TransferFunds;
+
+/**
+ * ReplicationJournal is the in-memory change stream of account creations and applied transfers.
+ * Offsets grow by one per entry, so a replica resumes by asking for the offset after the last one it applied.
+ * Only a PRIMARY instance records entries, on any other role the record methods do nothing.
+ * The journal only lives in memory, so each instance gets a fresh epoch and offsets are only meaningful within it.
+ *
+ * At most capacity entries are retained. Once exceeded, the oldest entries are folded into a balance-per-account snapshot
+ * until half of capacity is left, so memory is bounded by capacity plus the number of accounts. A replica asking for an
+ * offset that is no longer retained, or from another epoch, gets a snapshot of every account at the journal head instead.
+ */
+@Component
+public class ReplicationJournal {
+
+	// Upper bound on entries handed out per call, so a replica catching up from far behind is fed in chunks.
+	public static final int MAX_BATCH_SIZE = 1000;
+
+	private final boolean recording;
+
+	private final int capacity;
+
+	private final String epoch = UUID.randomUUID().toString();
+
+	private final List<JournalEntry> entries = new ArrayList<>();
+
+	// Balances just before baseOffset, i.e. after applying every evicted entry. Kept in creation order.
+	private final Map<String, BigDecimal> snapshotBalances = new LinkedHashMap<>();
+
+	// Offset of the oldest retained entry.
+	private long baseOffset;
+
+	@Autowired
+	public ReplicationJournal(ReplicationProperties replicationProperties) {
+		// Compacting down to half of capacity has to leave at least one entry, or the journal never retains anything.
+		if (replicationProperties.getJournalCapacity() < 2) {
+			throw new IllegalArgumentException("replication.journal-capacity must be at least 2 but was " + replicationProperties.getJournalCapacity());
+		}
+		this.recording = replicationProperties.getRole() == ReplicationRole.PRIMARY;
+		this.capacity = replicationProperties.getJournalCapacity();
+	}
+
+	public void recordAccountCreated(Account account) {
+		if (recording) {
+			synchronized (this) {
+				append(JournalEntry.accountCreated(epoch, getHeadOffset(), account));
+			}
+		}
+	}
+
+	public void recordTransferApplied(TransferFunds transferFunds, BigDecimal fromBalance, BigDecimal toBalance) {
+		if (recording) {
+			synchronized (this) {
+				append(JournalEntry.transferApplied(epoch, getHeadOffset(), transferFunds, fromBalance, toBalance));
+			}
+		}
+	}
+
+	public boolean isRecording() {
+		return recording;
+	}
+
+	public String getEpoch() {
+		return epoch;
+	}
+
+	/**
+	 * Returns a SNAPSHOT entry with every account's balance at the journal head, a replica restarting from it is then
+	 * shipped the journal from the snapshot's offset. Being complete, it lets the replica swap its accounts in one step.
+	 *
+	 * @return JournalEntry
+	 */
+	public synchronized JournalEntry snapshot() {
+		Map<String, BigDecimal> balances = new LinkedHashMap<>(snapshotBalances);
+		for (JournalEntry entry : entries) {
+			fold(balances, entry);
+		}
+		List<Account> accounts = new ArrayList<>(balances.size());
+		for (Map.Entry<String, BigDecimal> balance : balances.entrySet()) {
+			accounts.add(new Account(balance.getKey(), balance.getValue()));
+		}
+		return JournalEntry.snapshot(epoch, getHeadOffset(), accounts);
+	}
+
+	/**
+	 * Returns the offset the next entry will be written at, i.e. the number of entries ever written to the journal.
+	 *
+	 * @return long
+	 */
+	public synchronized long getHeadOffset() {
+		return baseOffset + entries.size();
+	}
+
+	/**
+	 * Returns up to MAX_BATCH_SIZE entries starting at offset, waiting up to timeoutMillis for one to be appended
+	 * when the caller is already at the head. An empty list means nothing new arrived within the timeout.
+	 * When offset is no longer retained the list holds a single SNAPSHOT entry to restart from instead.
+	 *
+	 * @param offset
+	 * @param timeoutMillis
+	 * @return List<JournalEntry>
+	 * @throws InterruptedException
+	 */
+	public synchronized List<JournalEntry> awaitEntriesFrom(long offset, long timeoutMillis) throws InterruptedException {
+		if (offset >= getHeadOffset()) {
+			wait(timeoutMillis);
+		}
+		if (offset < baseOffset) {
+			return Collections.singletonList(snapshot());
+		}
+		if (offset >= getHeadOffset()) {
+			return Collections.emptyList();
+		}
+		int from = (int) (offset - baseOffset);
+		int to = Math.min(entries.size(), from + MAX_BATCH_SIZE);
+		return new ArrayList<>(entries.subList(from, to));
+	}
+
+	private void append(JournalEntry entry) {
+		entries.add(entry);
+		if (entries.size() > capacity) {
+			compact();
+		}
+		// Waking up the shipping threads waiting at the head of the journal.
+		notifyAll();
+	}
+
+	/**
+	 * Folds the oldest entries into the snapshot until half of capacity is left, evicting in bulk keeps appends amortized O(1).
+	 */
+	private void compact() {
+		List<JournalEntry> evicted = entries.subList(0, entries.size() - capacity / 2);
+		for (JournalEntry entry : evicted) {
+			fold(snapshotBalances, entry);
+		}
+		baseOffset += evicted.size();
+		evicted.clear();
+	}
+
+	private static void fold(Map<String, BigDecimal> balances, JournalEntry entry) {
+		if (entry.getType() == JournalEntry.Type.ACCOUNT_CREATED) {
+			balances.put(entry.getAccount().getAccountId(), entry.getAccount().getBalance());
+		} else if (entry.getType() == JournalEntry.Type.TRANSFER_APPLIED) {
+			balances.put(entry.getTransferFunds().getFromAcctId(), entry.getFromBalance());
+			balances.put(entry.getTransferFunds().getToAcctId(), entry.getToBalance());
+		}
+	}
+}
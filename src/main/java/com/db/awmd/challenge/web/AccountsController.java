@@ -1,8 +1,10 @@
 package com.db.awmd.challenge.web;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -19,8 +21,10 @@ import com.db.awmd.challenge.domain.TransferFunds;
 import com.db.awmd.challenge.exception.AccountDoesntExistException;
 import com.db.awmd.challenge.exception.DuplicateAccountIdException;
 import com.db.awmd.challenge.exception.FundsTransferException;
+import com.db.awmd.challenge.exception.ReadOnlyReplicaException;
 import com.db.awmd.challenge.service.AccountsService;
 import com.db.awmd.challenge.service.EmailNotificationService;
+import com.db.awmd.challenge.service.ReplicaFollowerService;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -33,13 +37,18 @@ public class AccountsController {
 	
 	private final AccountsService accountsService;
 	
+	// Only present on a REPLICA instance.
+	private final ObjectProvider<ReplicaFollowerService> replicaFollowerService;
+	
 	// Declaring Constants
 	public static final String TRANSFER_FAILURE_STR = "TRANSFER FAILED!! ";
 	public static final String INITIATING_TRANSFER_STR = "Initiating fund transfer between accounts {} -> {}";
+	public static final String REPLICATION_LAG_HEADER = "X-Replication-Lag-Millis";
 	
 	@Autowired
-	public AccountsController(AccountsService accountsService) {
+	public AccountsController(AccountsService accountsService, ObjectProvider<ReplicaFollowerService> replicaFollowerService) {
 		this.accountsService = accountsService;
+		this.replicaFollowerService = replicaFollowerService;
 	}
 
 	@PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
@@ -50,14 +59,27 @@ public class AccountsController {
 			this.accountsService.createAccount(account);
 		} catch (DuplicateAccountIdException daie) {
 			return new ResponseEntity<>(daie.getMessage(), HttpStatus.BAD_REQUEST);
+		} catch (ReadOnlyReplicaException rorex) {
+			return new ResponseEntity<>(rorex.getMessage(), HttpStatus.FORBIDDEN);
 		}
 
 		return new ResponseEntity<>(HttpStatus.CREATED);
 	}
 
+	/**
+	 * On a read-only replica the response carries how far behind the primary the returned balance may be.
+	 * 
+	 * @param accountId
+	 * @param response
+	 * @return Account
+	 */
 	@GetMapping(path = "/{accountId}")
-	public Account getAccount(@PathVariable String accountId) {
+	public Account getAccount(@PathVariable String accountId, HttpServletResponse response) {
 		log.info("Retrieving account details for id {}", accountId);
+		ReplicaFollowerService follower = replicaFollowerService.getIfAvailable();
+		if (follower != null) {
+			response.setHeader(REPLICATION_LAG_HEADER, String.valueOf(follower.getStatus().getReplicationLagMillis()));
+		}
 		return this.accountsService.getAccount(accountId);
 	}
 
@@ -80,6 +102,9 @@ public class AccountsController {
 		} catch (FundsTransferException ftex) {
 			log.info(TRANSFER_FAILURE_STR + ftex.getMessage());
 			return new ResponseEntity<>(ftex.getMessage(), HttpStatus.BAD_REQUEST);
+		} catch (ReadOnlyReplicaException rorex) {
+			log.info(TRANSFER_FAILURE_STR + rorex.getMessage());
+			return new ResponseEntity<>(rorex.getMessage(), HttpStatus.FORBIDDEN);
 		}
 		
 		return new ResponseEntity<>(HttpStatus.CREATED);
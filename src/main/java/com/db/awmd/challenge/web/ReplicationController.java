@@ -0,0 +1,58 @@
+package com.db.awmd.challenge.web;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.db.awmd.challenge.config.ReplicationProperties;
+import com.db.awmd.challenge.domain.ReplicationRole;
+import com.db.awmd.challenge.domain.ReplicationStatus;
+import com.db.awmd.challenge.service.JournalShippingServer;
+import com.db.awmd.challenge.service.ReplicaFollowerService;
+import com.db.awmd.challenge.service.ReplicationJournal;
+
+@RestController
+@RequestMapping("/v1/replication")
+public class ReplicationController {
+
+	private final ReplicationJournal replicationJournal;
+
+	// Only present on a REPLICA instance.
+	private final ObjectProvider<ReplicaFollowerService> replicaFollowerService;
+
+	// Only present on a PRIMARY instance.
+	private final ObjectProvider<JournalShippingServer> journalShippingServer;
+
+	private final ReplicationRole replicationRole;
+
+	@Autowired
+	public ReplicationController(ReplicationJournal replicationJournal, ObjectProvider<ReplicaFollowerService> replicaFollowerService,
+			ObjectProvider<JournalShippingServer> journalShippingServer, ReplicationProperties replicationProperties) {
+		this.replicationJournal = replicationJournal;
+		this.replicaFollowerService = replicaFollowerService;
+		this.journalShippingServer = journalShippingServer;
+		this.replicationRole = replicationProperties.getRole();
+	}
+
+	/**
+	 * This controller API Method exposes the replication lag metrics of a replica, or the journal head of a primary.
+	 * A primary reports itself as connected while at least one replica is attached.
+	 * A STANDALONE instance takes no part in replication and reports itself as not connected.
+	 *
+	 * @return ReplicationStatus
+	 */
+	@GetMapping
+	public ReplicationStatus getReplicationStatus() {
+		if (replicationRole == ReplicationRole.REPLICA) {
+			return replicaFollowerService.getObject().getStatus();
+		}
+		if (replicationRole == ReplicationRole.STANDALONE) {
+			return new ReplicationStatus(replicationRole, false, null, 0, 0, 0, 0, null);
+		}
+		long headOffset = replicationJournal.getHeadOffset();
+		boolean connected = journalShippingServer.getObject().getReplicaCount() > 0;
+		return new ReplicationStatus(replicationRole, connected, replicationJournal.getEpoch(), headOffset, headOffset, 0, 0, null);
+	}
+}
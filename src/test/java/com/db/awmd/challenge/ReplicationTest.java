@@ -0,0 +1,387 @@
+package com.db.awmd.challenge;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+import com.db.awmd.challenge.config.ReplicationProperties;
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.JournalEntry;
+import com.db.awmd.challenge.domain.ReplicationRole;
+import com.db.awmd.challenge.domain.TransferFunds;
+import com.db.awmd.challenge.repository.AccountsRepository;
+import com.db.awmd.challenge.repository.AccountsRepositoryInMemory;
+import com.db.awmd.challenge.service.JournalShippingServer;
+import com.db.awmd.challenge.service.ReplicaFollowerService;
+import com.db.awmd.challenge.service.ReplicationJournal;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+public class ReplicationTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private final List<Process> processes = new ArrayList<>();
+
+  private final List<JournalShippingServer> servers = new ArrayList<>();
+
+  private ReplicaFollowerService follower;
+
+  @After
+  public void shutdown() {
+    if (follower != null) {
+      follower.stop();
+    }
+    servers.forEach(JournalShippingServer::stop);
+    processes.forEach(Process::destroyForcibly);
+  }
+
+  @Test
+  public void shipsJournalFromRequestedOffset() throws Exception {
+    ReplicationJournal journal = newJournal(100);
+    journal.recordAccountCreated(new Account("Id-1", new BigDecimal(100)));
+    journal.recordAccountCreated(new Account("Id-2", new BigDecimal(200)));
+    journal.recordAccountCreated(new Account("Id-3", new BigDecimal(300)));
+    JournalShippingServer server = startServer(journal, 0);
+
+    try (Socket socket = new Socket("127.0.0.1", server.getLocalPort())) {
+      BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+      Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+      out.write(journal.getEpoch() + " 2\n");
+      out.flush();
+
+      JournalEntry heartbeat = objectMapper.readValue(in.readLine(), JournalEntry.class);
+      assertThat(heartbeat.getType()).isEqualTo(JournalEntry.Type.HEARTBEAT);
+      assertThat(heartbeat.getOffset()).isEqualTo(3);
+
+      JournalEntry entry = objectMapper.readValue(in.readLine(), JournalEntry.class);
+      assertThat(entry.getOffset()).isEqualTo(2);
+      assertThat(entry.getType()).isEqualTo(JournalEntry.Type.ACCOUNT_CREATED);
+      assertThat(entry.getAccount().getAccountId()).isEqualTo("Id-3");
+    }
+  }
+
+  @Test
+  public void replicaResumesFromOffsetAfterDisconnect() throws Exception {
+    ReplicationJournal journal = newJournal(100);
+    JournalShippingServer server = startServer(journal, 0);
+    int port = server.getLocalPort();
+
+    AccountsRepository replicaRepository = new AccountsRepositoryInMemory();
+    startFollower(replicaRepository, port);
+
+    journal.recordAccountCreated(new Account("Id-1", new BigDecimal(100)));
+    journal.recordAccountCreated(new Account("Id-2", new BigDecimal(50)));
+    await(() -> follower.getStatus().getAppliedOffset() == 2);
+    assertThat(server.getReplicaCount()).isEqualTo(1);
+
+    server.stop();
+    await(() -> !follower.getStatus().isConnected());
+
+    journal.recordTransferApplied(new TransferFunds("Id-1", "Id-2", new BigDecimal(30)),
+      new BigDecimal(70), new BigDecimal(80));
+    JournalShippingServer restartedServer = startServer(journal, port);
+    await(() -> follower.getStatus().getAppliedOffset() == 3);
+
+    assertThat(replicaRepository.getAccount("Id-1").getBalance()).isEqualByComparingTo("70");
+    assertThat(replicaRepository.getAccount("Id-2").getBalance()).isEqualByComparingTo("80");
+    await(() -> follower.getStatus().getEntriesBehind() == 0 && follower.getStatus().getReplicationLagMillis() == 0);
+
+    follower.stop();
+    await(() -> restartedServer.getReplicaCount() == 0);
+  }
+
+  @Test
+  public void replicaReportsEntriesBehindWhileCatchingUp() throws Exception {
+    ReplicationJournal journal = newJournal(100);
+    JournalShippingServer server = startServer(journal, 0);
+
+    // Holding the replica on the first entry written after it synced, so it stays behind a primary that keeps writing.
+    CountDownLatch release = new CountDownLatch(1);
+    AccountsRepository replicaRepository = new AccountsRepositoryInMemory() {
+      @Override
+      public void createAccount(Account account) {
+        try {
+          release.await();
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+        super.createAccount(account);
+      }
+    };
+    startFollower(replicaRepository, server.getLocalPort());
+    await(() -> journal.getEpoch().equals(follower.getStatus().getEpoch()));
+
+    journal.recordAccountCreated(new Account("Id-1", new BigDecimal(100)));
+    journal.recordAccountCreated(new Account("Id-2", new BigDecimal(200)));
+    journal.recordAccountCreated(new Account("Id-3", new BigDecimal(300)));
+    // The heartbeat ahead of the batch the replica is stuck on reports a head of at least 1, depending on how many entries it carries.
+    await(() -> follower.getStatus().getPrimaryOffset() > 0);
+    assertThat(follower.getStatus().getAppliedOffset()).isEqualTo(0);
+    assertThat(follower.getStatus().getEntriesBehind()).isGreaterThan(0);
+
+    // Connected and synced, but behind the primary, so the lag must not read 0.
+    Thread.sleep(200);
+    assertThat(follower.getStatus().isConnected()).isTrue();
+    assertThat(follower.getStatus().getReplicationLagMillis()).isGreaterThanOrEqualTo(200);
+
+    release.countDown();
+    await(() -> follower.getStatus().getAppliedOffset() == 3 && follower.getStatus().getEntriesBehind() == 0
+      && follower.getStatus().getReplicationLagMillis() == 0);
+  }
+
+  @Test
+  public void replicaThatNeverSyncedReportsGrowingLag() throws Exception {
+    startFollower(new AccountsRepositoryInMemory(), freePort());
+
+    Thread.sleep(200);
+    assertThat(follower.getStatus().isConnected()).isFalse();
+    assertThat(follower.getStatus().getEpoch()).isNull();
+    assertThat(follower.getStatus().getReplicationLagMillis()).isGreaterThanOrEqualTo(200);
+  }
+
+  @Test
+  public void replicaStopsFollowingAtEntryItCannotApply() throws Exception {
+    AtomicInteger connections = new AtomicInteger();
+    try (ServerSocket primary = new ServerSocket(0)) {
+      Thread shipper = new Thread(() -> {
+        try {
+          while (true) {
+            Socket replica = primary.accept();
+            connections.incrementAndGet();
+            new BufferedReader(new InputStreamReader(replica.getInputStream(), StandardCharsets.UTF_8)).readLine();
+            Writer out = new OutputStreamWriter(replica.getOutputStream(), StandardCharsets.UTF_8);
+            List<Account> accounts = new ArrayList<>();
+            accounts.add(new Account("Id-1", new BigDecimal(100)));
+            out.write(objectMapper.writeValueAsString(JournalEntry.snapshot("epoch-1", 0, accounts)) + "\n");
+            out.write(objectMapper.writeValueAsString(JournalEntry.heartbeat("epoch-1", 1)) + "\n");
+            // A transfer without its funds can never be applied, however often it is shipped.
+            out.write(objectMapper.writeValueAsString(new JournalEntry("epoch-1", 0, JournalEntry.Type.TRANSFER_APPLIED,
+                System.currentTimeMillis(), null, null, BigDecimal.ONE, BigDecimal.ONE, null)) + "\n");
+            out.flush();
+          }
+        } catch (Exception ex) {
+          // Closed at the end of the test.
+        }
+      });
+      shipper.setDaemon(true);
+      shipper.start();
+
+      AccountsRepository replicaRepository = new AccountsRepositoryInMemory();
+      startFollower(replicaRepository, primary.getLocalPort());
+
+      await(() -> follower.getStatus().isFailed());
+      assertThat(follower.getStatus().getFailedOffset()).isEqualTo(0);
+      assertThat(follower.getStatus().getEntriesBehind()).isEqualTo(1);
+      assertThat(replicaRepository.getAccount("Id-1").getBalance()).isEqualByComparingTo("100");
+
+      // Retrying would only ship the same entry again.
+      Thread.sleep(500);
+      assertThat(connections.get()).isEqualTo(1);
+      assertThat(follower.getStatus().isConnected()).isFalse();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void journalRejectsCapacityBelowTwo() {
+    newJournal(1);
+  }
+
+  @Test
+  public void replicaBootstrapsFromSnapshotOfEvictedEntries() throws Exception {
+    ReplicationJournal journal = newJournal(4);
+    journal.recordAccountCreated(new Account("Id-1", new BigDecimal(100)));
+    journal.recordAccountCreated(new Account("Id-2", new BigDecimal(50)));
+    journal.recordTransferApplied(new TransferFunds("Id-1", "Id-2", new BigDecimal(30)),
+      new BigDecimal(70), new BigDecimal(80));
+    journal.recordAccountCreated(new Account("Id-3", new BigDecimal(10)));
+    journal.recordAccountCreated(new Account("Id-4", new BigDecimal(20)));
+    journal.recordAccountCreated(new Account("Id-5", new BigDecimal(30)));
+
+    // Exceeding capacity 4 on the fifth entry evicted offsets 0..2, the snapshot still covers every account at the head.
+    JournalEntry snapshot = journal.snapshot();
+    assertThat(snapshot.getOffset()).isEqualTo(6);
+    assertThat(snapshot.getAccounts()).extracting(Account::getAccountId).containsExactly("Id-1", "Id-2", "Id-3", "Id-4", "Id-5");
+    assertThat(snapshot.getAccounts().get(0).getBalance()).isEqualByComparingTo("70");
+    assertThat(journal.awaitEntriesFrom(1, 0).get(0).getType()).isEqualTo(JournalEntry.Type.SNAPSHOT);
+
+    AccountsRepository replicaRepository = new AccountsRepositoryInMemory();
+    startFollower(replicaRepository, startServer(journal, 0).getLocalPort());
+
+    await(() -> follower.getStatus().getAppliedOffset() == 6);
+    assertThat(follower.getStatus().getResyncCount()).isEqualTo(0);
+    assertThat(replicaRepository.getAccount("Id-1").getBalance()).isEqualByComparingTo("70");
+    assertThat(replicaRepository.getAccount("Id-2").getBalance()).isEqualByComparingTo("80");
+    assertThat(replicaRepository.getAccount("Id-5").getBalance()).isEqualByComparingTo("30");
+  }
+
+  @Test
+  public void replicaResyncsWhenPrimaryRestartsWithNewEpoch() throws Exception {
+    ReplicationJournal journal = newJournal(100);
+    journal.recordAccountCreated(new Account("Id-1", new BigDecimal(100)));
+    journal.recordAccountCreated(new Account("Id-2", new BigDecimal(50)));
+    JournalShippingServer server = startServer(journal, 0);
+    int port = server.getLocalPort();
+
+    AccountsRepository replicaRepository = new AccountsRepositoryInMemory();
+    startFollower(replicaRepository, port);
+    await(() -> follower.getStatus().getAppliedOffset() == 2);
+    assertThat(follower.getStatus().getEpoch()).isEqualTo(journal.getEpoch());
+
+    // Reading an account that exists before and after the resync, it must never go missing in between.
+    AtomicBoolean resynced = new AtomicBoolean();
+    AtomicBoolean missing = new AtomicBoolean();
+    Thread reader = new Thread(() -> {
+      while (!resynced.get()) {
+        if (replicaRepository.getAccount("Id-1") == null) {
+          missing.set(true);
+        }
+      }
+    });
+    reader.start();
+
+    // Restarted primary, its journal starts over at offset 0 and grows past the replica's offset.
+    server.stop();
+    ReplicationJournal restartedJournal = newJournal(100);
+    restartedJournal.recordAccountCreated(new Account("Id-1", new BigDecimal(100)));
+    restartedJournal.recordAccountCreated(new Account("Id-3", new BigDecimal(10)));
+    restartedJournal.recordAccountCreated(new Account("Id-4", new BigDecimal(20)));
+    restartedJournal.recordAccountCreated(new Account("Id-5", new BigDecimal(30)));
+    startServer(restartedJournal, port);
+
+    await(() -> restartedJournal.getEpoch().equals(follower.getStatus().getEpoch()) && follower.getStatus().getAppliedOffset() == 4);
+    resynced.set(true);
+    reader.join();
+    assertThat(missing.get()).isFalse();
+    assertThat(follower.getStatus().getResyncCount()).isEqualTo(1);
+    assertThat(replicaRepository.getAccount("Id-2")).isNull();
+    assertThat(replicaRepository.getAccount("Id-3").getBalance()).isEqualByComparingTo("10");
+    assertThat(replicaRepository.getAccount("Id-5").getBalance()).isEqualByComparingTo("30");
+  }
+
+  @Test
+  public void replicaProcessServesReadsShippedFromPrimaryProcess() throws Exception {
+    int primaryHttpPort = freePort();
+    int replicaHttpPort = freePort();
+    int journalPort = freePort();
+    String primary = "http://127.0.0.1:" + primaryHttpPort + "/v1";
+    String replica = "http://127.0.0.1:" + replicaHttpPort + "/v1";
+
+    startApplication("--server.port=" + primaryHttpPort, "--replication.role=PRIMARY", "--replication.port=" + journalPort);
+    startApplication("--server.port=" + replicaHttpPort, "--replication.role=REPLICA", "--replication.primary-port=" + journalPort);
+
+    RestTemplate restTemplate = new RestTemplate();
+    await(() -> isUp(restTemplate, primary) && isUp(restTemplate, replica));
+
+    restTemplate.postForEntity(primary + "/accounts", new Account("Id-1", new BigDecimal(1000)), Void.class);
+    restTemplate.postForEntity(primary + "/accounts", new Account("Id-2", new BigDecimal(500)), Void.class);
+    restTemplate.postForEntity(primary + "/accounts/transfer", new TransferFunds("Id-1", "Id-2", new BigDecimal(200)), Void.class);
+
+    await(() -> {
+      Account account = restTemplate.getForObject(replica + "/accounts/Id-2", Account.class);
+      return account != null && account.getBalance().compareTo(new BigDecimal(700)) == 0;
+    });
+    assertThat(restTemplate.getForObject(replica + "/accounts/Id-1", Account.class).getBalance()).isEqualByComparingTo("800");
+
+    ResponseEntity<Account> response = restTemplate.getForEntity(replica + "/accounts/Id-1", Account.class);
+    assertThat(response.getHeaders().getFirst("X-Replication-Lag-Millis")).isNotNull();
+
+    Map<?, ?> status = restTemplate.getForObject(replica + "/replication", Map.class);
+    assertThat(status.get("role")).isEqualTo("REPLICA");
+    assertThat(((Number) status.get("appliedOffset")).longValue()).isEqualTo(3);
+    assertThat(restTemplate.getForObject(primary + "/replication", Map.class).get("connected")).isEqualTo(true);
+
+    try {
+      restTemplate.postForEntity(replica + "/accounts", new Account("Id-3", new BigDecimal(10)), Void.class);
+      fail("Replica should have rejected the write");
+    } catch (HttpClientErrorException ex) {
+      assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+    }
+  }
+
+  private static ReplicationJournal newJournal(int capacity) {
+    ReplicationProperties properties = new ReplicationProperties();
+    properties.setRole(ReplicationRole.PRIMARY);
+    properties.setJournalCapacity(capacity);
+    return new ReplicationJournal(properties);
+  }
+
+  private void startFollower(AccountsRepository replicaRepository, int primaryPort) {
+    ReplicationProperties properties = new ReplicationProperties();
+    properties.setRole(ReplicationRole.REPLICA);
+    properties.setPrimaryPort(primaryPort);
+    properties.setReadTimeoutMillis(2000);
+    properties.setRetryMillis(100);
+    follower = new ReplicaFollowerService(replicaRepository, objectMapper, properties);
+    follower.start();
+  }
+
+  private JournalShippingServer startServer(ReplicationJournal journal, int port) throws Exception {
+    ReplicationProperties properties = new ReplicationProperties();
+    properties.setRole(ReplicationRole.PRIMARY);
+    properties.setPort(port);
+    properties.setHeartbeatMillis(200);
+    JournalShippingServer server = new JournalShippingServer(journal, objectMapper, properties);
+    server.start();
+    servers.add(server);
+    return server;
+  }
+
+  private void startApplication(String... args) throws Exception {
+    List<String> command = new ArrayList<>();
+    command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+    command.add("-cp");
+    command.add(System.getProperty("java.class.path"));
+    command.add(DevChallengeApplication.class.getName());
+    for (String arg : args) {
+      command.add(arg);
+    }
+    File log = File.createTempFile("replication-test-", ".log");
+    processes.add(new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log).start());
+  }
+
+  private static boolean isUp(RestTemplate restTemplate, String baseUrl) {
+    try {
+      restTemplate.getForObject(baseUrl + "/replication", Map.class);
+      return true;
+    } catch (Exception ex) {
+      return false;
+    }
+  }
+
+  private static int freePort() throws Exception {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    }
+  }
+
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 60000;
+    while (!condition.getAsBoolean()) {
+      if (System.currentTimeMillis() > deadline) {
+        fail("Condition not met within 60 seconds");
+      }
+      Thread.sleep(100);
+    }
+  }
+}